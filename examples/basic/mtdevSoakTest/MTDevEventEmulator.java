@@ -0,0 +1,227 @@
+package basic.mtdevSoakTest;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Synthetic multitouch panel: writes a stream of 64-bit struct input_event, as a type B (slotted) kernel driver
+ * would, to any output stream (file, named pipe or {@link java.io.PipedOutputStream}).
+ *
+ * Each frame updates every active contact with a small random walk, may lift a contact or put a lifted one back
+ * down with a new tracking id (churn), and is terminated by SYN_REPORT. SYN_DROPPED may be injected anywhere before the
+ * churn, so that the tracking id changes of the frame are lost: a consumer which does not resync its slots leaves
+ * cursors behind.
+ */
+public class MTDevEventEmulator implements Runnable {
+	/** Event types and codes defined in /usr/include/linux/input.h */
+	static final int EV_SYN = 0x00;
+	static final int EV_ABS = 0x03;
+	static final int SYN_REPORT = 0x00;
+	static final int SYN_DROPPED = 0x03;
+	static final int ABS_MT_SLOT = 0x2f;
+	static final int ABS_MT_TOUCH_MAJOR = 0x30;
+	static final int ABS_MT_TOUCH_MINOR = 0x31;
+	static final int ABS_MT_ORIENTATION = 0x34;
+	static final int ABS_MT_POSITION_X = 0x35;
+	static final int ABS_MT_POSITION_Y = 0x36;
+	static final int ABS_MT_TRACKING_ID = 0x39;
+
+	/** Emulated axis range, shared by position and touch axes */
+	static final int AXIS_MIN = 0;
+	static final int AXIS_MAX = 32767;
+
+	private final OutputStream out;
+	private final int slotCount;
+	private final int frameRateHz;
+	private final double churnProbability;
+	private final double dropProbability;
+	private final long durationNanos;
+	private final Random random = new Random(42);
+
+	private final ByteBuffer record = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+	private final boolean[] active;
+	private final int[] trackingIds;
+	private final int[] positionsX;
+	private final int[] positionsY;
+	private int nextTrackingId = 0;
+
+	private volatile boolean running = true;
+	private volatile long framesWritten = 0;
+	private volatile long eventsWritten = 0;
+	private volatile long dropsInjected = 0;
+
+	/**
+	 * @param out
+	 *            destination of the input_event stream
+	 * @param slotCount
+	 *            number of simultaneous contacts
+	 * @param frameRateHz
+	 *            SYN_REPORT frames per second
+	 * @param churnProbability
+	 *            probability, per frame, that one contact is lifted and another one put down
+	 * @param dropProbability
+	 *            probability, per frame, of a SYN_DROPPED
+	 * @param durationSeconds
+	 *            emulation duration
+	 */
+	public MTDevEventEmulator(OutputStream out, int slotCount, int frameRateHz, double churnProbability, double dropProbability, int durationSeconds) {
+		this.out = new BufferedOutputStream(out, 64 * record.capacity());
+		this.slotCount = slotCount;
+		this.frameRateHz = frameRateHz;
+		this.churnProbability = churnProbability;
+		this.dropProbability = dropProbability;
+		this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+
+		this.active = new boolean[slotCount];
+		this.trackingIds = new int[slotCount];
+		this.positionsX = new int[slotCount];
+		this.positionsY = new int[slotCount];
+	}
+
+	@Override
+	public void run() {
+		long framePeriod = TimeUnit.SECONDS.toNanos(1) / frameRateHz;
+		long start = System.nanoTime();
+		long nextFrame = start;
+
+		try {
+			// put all contacts down
+			for (int slot = 0; slot < slotCount; slot++)
+				startContact(slot);
+			endFrame();
+
+			while (running && System.nanoTime() - start < durationNanos) {
+				writeFrame();
+
+				// pace frames on an absolute schedule so that sleep jitter does not accumulate
+				nextFrame += framePeriod;
+				long wait = nextFrame - System.nanoTime();
+				if (wait > 0) {
+					out.flush();
+					LockSupport.parkNanos(wait);
+				}
+			}
+
+			// lift all contacts
+			for (int slot = 0; slot < slotCount; slot++)
+				endContact(slot);
+			endFrame();
+		}
+		catch (IOException e) {
+			// consumer closed the stream
+		}
+		finally {
+			try {
+				out.close();
+			}
+			catch (IOException e) {
+				// already closed
+			}
+		}
+	}
+
+	public void stop() {
+		running = false;
+	}
+
+	public long getFramesWritten() {
+		return framesWritten;
+	}
+
+	public long getEventsWritten() {
+		return eventsWritten;
+	}
+
+	public long getDropsInjected() {
+		return dropsInjected;
+	}
+
+	private void writeFrame() throws IOException {
+		boolean churn = random.nextDouble() < churnProbability;
+		boolean drop = random.nextDouble() < dropProbability;
+		int dropAfterSlot = drop ? random.nextInt(slotCount) : -1;
+
+		for (int slot = 0; slot < slotCount; slot++) {
+			if (!active[slot]) continue;
+
+			positionsX[slot] = walk(positionsX[slot]);
+			positionsY[slot] = walk(positionsY[slot]);
+			write(EV_ABS, ABS_MT_SLOT, slot);
+			write(EV_ABS, ABS_MT_POSITION_X, positionsX[slot]);
+			write(EV_ABS, ABS_MT_POSITION_Y, positionsY[slot]);
+
+			if (drop && slot >= dropAfterSlot) {
+				write(EV_SYN, SYN_DROPPED, 0);
+				dropsInjected++;
+				drop = false;
+			}
+		}
+
+		// no active slot after the drop point: drop right before the churn
+		if (drop) {
+			write(EV_SYN, SYN_DROPPED, 0);
+			dropsInjected++;
+		}
+
+		if (churn) {
+			int slot = random.nextInt(slotCount);
+			if (active[slot])
+				endContact(slot);
+			else
+				startContact(slot);
+		}
+
+		endFrame();
+	}
+
+	private void startContact(int slot) throws IOException {
+		active[slot] = true;
+		trackingIds[slot] = nextTrackingId++ & 0xffff;
+		positionsX[slot] = AXIS_MIN + random.nextInt(AXIS_MAX - AXIS_MIN);
+		positionsY[slot] = AXIS_MIN + random.nextInt(AXIS_MAX - AXIS_MIN);
+
+		write(EV_ABS, ABS_MT_SLOT, slot);
+		write(EV_ABS, ABS_MT_TRACKING_ID, trackingIds[slot]);
+		write(EV_ABS, ABS_MT_POSITION_X, positionsX[slot]);
+		write(EV_ABS, ABS_MT_POSITION_Y, positionsY[slot]);
+		write(EV_ABS, ABS_MT_TOUCH_MAJOR, 600 + random.nextInt(400));
+		write(EV_ABS, ABS_MT_TOUCH_MINOR, 400 + random.nextInt(200));
+		write(EV_ABS, ABS_MT_ORIENTATION, random.nextInt(2));
+	}
+
+	private void endContact(int slot) throws IOException {
+		if (!active[slot]) return;
+
+		active[slot] = false;
+		write(EV_ABS, ABS_MT_SLOT, slot);
+		write(EV_ABS, ABS_MT_TRACKING_ID, -1);
+	}
+
+	private void endFrame() throws IOException {
+		write(EV_SYN, SYN_REPORT, 0);
+		framesWritten++;
+	}
+
+	private int walk(int position) {
+		position += random.nextInt(41) - 20;
+		return Math.max(AXIS_MIN, Math.min(AXIS_MAX, position));
+	}
+
+	private void write(int type, int code, int value) throws IOException {
+		long now = System.currentTimeMillis();
+		record.clear();
+		record.putLong(now / 1000);
+		record.putLong((now % 1000) * 1000);
+		record.putShort((short) type);
+		record.putShort((short) code);
+		record.putInt(value);
+		out.write(record.array());
+		eventsWritten++;
+	}
+}
@@ -0,0 +1,215 @@
+package basic.mtdevSoakTest;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.mt4j.AbstractMTApplication;
+import org.mt4j.input.inputData.ActiveCursorPool;
+import org.mt4j.input.inputSources.MTDevInputSource;
+
+/**
+ * Soak test for {@link MTDevInputSource}, without touch hardware: a {@link MTDevEventEmulator} feeds the source
+ * through a pipe while a fake render loop flushes its event queue, then throughput, GC activity, allocation rate of
+ * the reader thread, dropped events and cursors left in {@link ActiveCursorPool} are reported.
+ *
+ * The stream is decoded by the Java replay reader of {@link MTDevInputSource}, not by the native library: cursor
+ * handling after SYN_DROPPED is exercised as the replay reader reports it, but the native event loop, which does not
+ * report SYN_DROPPED to the source, is not covered.
+ *
+ * This harness is not headless: input sources need an {@link AbstractMTApplication}, which is a processing PApplet
+ * and thus an AWT applet, and applets cannot be created with java.awt.headless. The application is never
+ * initialized, so no window nor GL context is opened, but a display is needed; use xvfb-run on CI boxes without one.
+ *
+ * Usage: MTDevSoakTest [durationSeconds [contacts [frameRateHz [churn [dropRate [fifoPath]]]]]]
+ * (defaults: 60 s, 20 contacts, 1000 Hz, 0.05 churn, 0.001 drop, in-process pipe). Exits with status 1 if cursors
+ * are left in the pool.
+ */
+public class MTDevSoakTest {
+	/** Emulated screen size */
+	private static final int WIDTH = 1024;
+	private static final int HEIGHT = 768;
+	/** Fake render loop frame rate (MaximumFrameRate in Settings.txt) */
+	private static final int RENDER_RATE_HZ = 60;
+
+	public static void main(String[] args) throws Exception {
+		int durationSeconds = args.length > 0 ? Integer.parseInt(args[0]) : 60;
+		int contacts = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+		int frameRateHz = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+		double churn = args.length > 3 ? Double.parseDouble(args[3]) : 0.05;
+		double dropRate = args.length > 4 ? Double.parseDouble(args[4]) : 0.001;
+		final String fifoPath = args.length > 5 ? args[5] : null;
+
+		// connect emulator to source
+		final InputStream eventStream;
+		final MTDevEventEmulator emulator;
+		Thread emulatorThread;
+		if (fifoPath == null) {
+			PipedOutputStream pipeOut = new PipedOutputStream();
+			eventStream = new PipedInputStream(pipeOut, 1 << 16);
+			emulator = new MTDevEventEmulator(pipeOut, contacts, frameRateHz, churn, dropRate, durationSeconds);
+			emulatorThread = new Thread(emulator, "mtdev-emulator");
+		}
+		else {
+			// opening a named pipe blocks until both ends are open: open the writing end on the emulator thread
+			final MTDevEventEmulator[] fifoEmulator = new MTDevEventEmulator[1];
+			final Object lock = new Object();
+			final int d = durationSeconds, c = contacts, r = frameRateHz;
+			final double ch = churn, dr = dropRate;
+			emulatorThread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						MTDevEventEmulator e = new MTDevEventEmulator(new FileOutputStream(fifoPath), c, r, ch, dr, d);
+						synchronized (lock) {
+							fifoEmulator[0] = e;
+							lock.notifyAll();
+						}
+						e.run();
+					}
+					catch (IOException e) {
+						throw new RuntimeException("Cannot open " + fifoPath, e);
+					}
+				}
+			}, "mtdev-emulator");
+			emulatorThread.start();
+			eventStream = new FileInputStream(fifoPath);
+			synchronized (lock) {
+				while (fifoEmulator[0] == null)
+					lock.wait();
+			}
+			emulator = fifoEmulator[0];
+		}
+
+		HeadlessApplication app = new HeadlessApplication();
+		ReaderAllocationStream readerStream = new ReaderAllocationStream(eventStream);
+		MTDevInputSource source = new MTDevInputSource(app, "mtdev emulator", readerStream);
+		source.addCap(MTDevEventEmulator.ABS_MT_POSITION_X, MTDevEventEmulator.AXIS_MIN, MTDevEventEmulator.AXIS_MAX);
+		source.addCap(MTDevEventEmulator.ABS_MT_POSITION_Y, MTDevEventEmulator.AXIS_MIN, MTDevEventEmulator.AXIS_MAX);
+		source.addCap(MTDevEventEmulator.ABS_MT_TOUCH_MAJOR, MTDevEventEmulator.AXIS_MIN, MTDevEventEmulator.AXIS_MAX);
+		source.addCap(MTDevEventEmulator.ABS_MT_TOUCH_MINOR, MTDevEventEmulator.AXIS_MIN, MTDevEventEmulator.AXIS_MAX);
+		source.addCap(MTDevEventEmulator.ABS_MT_ORIENTATION, 0, 1);
+
+		long gcCountBefore = gcCount();
+		long gcTimeBefore = gcTime();
+		long start = System.nanoTime();
+
+		source.onRegistered();
+		if (fifoPath == null)
+			emulatorThread.start();
+
+		// fake render loop: flush the source queue at the render rate until the emulator is done and the source idle
+		long renderPeriodMillis = 1000 / RENDER_RATE_HZ;
+		long lastFrameCount = -1;
+		while (emulatorThread.isAlive() || source.getFrameCount() != lastFrameCount) {
+			lastFrameCount = source.getFrameCount();
+			source.processAction();
+			Thread.sleep(renderPeriodMillis);
+		}
+		source.processAction();
+
+		double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+		long gcCount = gcCount() - gcCountBefore;
+		long gcTime = gcTime() - gcTimeBefore;
+		long allocated = readerStream.getAllocatedBytes();
+		int stuckCursors = ActiveCursorPool.getInstance().getActiveCursorCount();
+
+		source.closeMTDevice();
+
+		System.out.println("MTDevInputSource soak test: " + contacts + " contacts, " + frameRateHz + " Hz, churn " + churn + ", drop rate " + dropRate);
+		System.out.printf("  duration          %.1f s%n", elapsedSeconds);
+		System.out.printf("  events written    %d (%.0f/s)%n", emulator.getEventsWritten(), emulator.getEventsWritten() / elapsedSeconds);
+		System.out.printf("  frames written    %d (%.0f/s)%n", emulator.getFramesWritten(), emulator.getFramesWritten() / elapsedSeconds);
+		System.out.printf("  frames fired      %d (%.0f/s)%n", source.getFrameCount(), source.getFrameCount() / elapsedSeconds);
+		System.out.printf("  updates coalesced %d%n", source.getCoalescedEventCount());
+		System.out.printf("  SYN_DROPPED       %d injected, %d events discarded%n", emulator.getDropsInjected(), source.getDroppedEventCount());
+		System.out.printf("  GC                %d collections, %d ms%n", gcCount, gcTime);
+		if (allocated >= 0)
+			System.out.printf("  allocation rate   %.1f MB/s (reader thread)%n", allocated / elapsedSeconds / (1024 * 1024));
+		System.out.printf("  stuck cursors     %d%n", stuckCursors);
+
+		System.exit(stuckCursors == 0 ? 0 : 1);
+	}
+
+	private static long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			count += Math.max(0, gc.getCollectionCount());
+		return count;
+	}
+
+	private static long gcTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			time += Math.max(0, gc.getCollectionTime());
+		return time;
+	}
+
+	/**
+	 * Stream read by the source's reader thread, which records the bytes allocated by that thread between its first
+	 * read and the end of the stream. Sampled from the reader thread itself, as it is gone by the end of the test, and
+	 * only there, so that neither the harness nor the render loop count in the allocation rate.
+	 */
+	private static class ReaderAllocationStream extends FilterInputStream {
+		private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		private boolean started = false;
+		private long allocatedAtStart;
+		private volatile long allocated = -1;
+
+		public ReaderAllocationStream(InputStream in) {
+			super(in);
+		}
+
+		/**
+		 * @return bytes allocated by the reader thread, -1 if the stream has not ended or the JVM does not support
+		 *         per-thread allocation accounting
+		 */
+		public long getAllocatedBytes() {
+			return allocated;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (!started) {
+				allocatedAtStart = allocatedBytes();
+				started = true;
+			}
+
+			int count = super.read(b, off, len);
+			if (count < 0 && allocatedAtStart >= 0 && allocated < 0)
+				allocated = allocatedBytes() - allocatedAtStart;
+			return count;
+		}
+
+		private long allocatedBytes() {
+			if (!(threads instanceof com.sun.management.ThreadMXBean))
+				return -1;
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+	}
+
+	/**
+	 * Application that is never initialized: only provides the screen size and the pre-draw action registration
+	 * needed by input sources.
+	 */
+	private static class HeadlessApplication extends AbstractMTApplication {
+		private static final long serialVersionUID = 1L;
+
+		public HeadlessApplication() {
+			this.width = WIDTH;
+			this.height = HEIGHT;
+			this.setSize(WIDTH, HEIGHT);
+		}
+
+		@Override
+		public void startUp() {
+		}
+	}
+}
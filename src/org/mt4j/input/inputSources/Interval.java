@@ -0,0 +1,52 @@
+/**
+ * Copyright 2012 Frédéric Cadier <f.cadier@free.fr>
+ * 
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.mt4j.input.inputSources;
+
+/**
+ * Helper class for numeric interval handling.
+ * 
+ * @author Frédéric Cadier
+ *
+ * @param <T> interval's type: T must extends Number
+ */
+class Interval<T extends Number> {
+	T min;
+	T max;
+	
+	public Interval(T min,	T max) {
+		this.min = min;
+		this.max = max;
+	}
+	
+	public T getMin() {
+		return min;
+	}
+	
+	public T getMax() {
+		return max;
+	}
+	
+	public double getLength() {
+		return (getMax().doubleValue() - getMin().doubleValue());
+	}
+	
+	@Override
+	public String toString() {
+		return "[" + min + ";" + max + "]";
+	}
+}
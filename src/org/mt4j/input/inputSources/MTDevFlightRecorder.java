@@ -0,0 +1,104 @@
+/**
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.mt4j.input.inputSources;
+
+/**
+ * Java Flight Recorder hooks of {@link MTDevInputSource}.
+ *
+ * JFR classes are only touched when the jdk.jfr module is present at runtime (it may be left out of custom runtime
+ * images) and the <code>mtdev4j.jfr</code> system property is not <code>false</code>. Whether each event is actually recorded is left
+ * to the recording settings; frames are only recorded above a 1 ms threshold by default.
+ *
+ * Coalesced updates are not recorded one by one: they are counted on each queue flush event.
+ */
+final class MTDevFlightRecorder {
+	/** True if JFR events may be emitted */
+	static final boolean AVAILABLE;
+	static {
+		boolean available = !"false".equals(System.getProperty("mtdev4j.jfr"));
+		if (available) {
+			try {
+				Class.forName("jdk.jfr.Event");
+			}
+			catch (ClassNotFoundException | LinkageError e) {
+				available = false;
+			}
+		}
+		AVAILABLE = available;
+	}
+
+	private MTDevFlightRecorder() {
+	}
+
+	/**
+	 * Start timing a frame decode.
+	 *
+	 * @return frame event to pass to {@link #endFrame(Object, int, int)}, or null if not recorded
+	 */
+	static Object beginFrame() {
+		return AVAILABLE ? MTDevJfrEvents.beginFrame() : null;
+	}
+
+	/**
+	 * End timing a frame decode, at SYN_REPORT.
+	 *
+	 * @param frame
+	 *            value returned by {@link #beginFrame()}
+	 * @param contacts
+	 *            number of contacts fired in this frame
+	 * @param evdevEvents
+	 *            number of mtdev events decoded in this frame
+	 */
+	static void endFrame(Object frame, int contacts, int evdevEvents) {
+		if (frame != null)
+			MTDevJfrEvents.endFrame(frame, contacts, evdevEvents);
+	}
+
+	static void cursorStarted(int slotId, long cursorId) {
+		if (AVAILABLE)
+			MTDevJfrEvents.cursorStarted(slotId, cursorId);
+	}
+
+	static void cursorEnded(int slotId, long cursorId) {
+		if (AVAILABLE)
+			MTDevJfrEvents.cursorEnded(slotId, cursorId);
+	}
+
+	/**
+	 * A frame has been discarded after a SYN_DROPPED. Always emitted for replayed streams; on the native event loop,
+	 * only if the native library forwards SYN_DROPPED, which the source cannot tell.
+	 *
+	 * @param discardedEvents
+	 *            number of mtdev events discarded
+	 */
+	static void frameDropped(int discardedEvents) {
+		if (AVAILABLE)
+			MTDevJfrEvents.frameDropped(discardedEvents);
+	}
+
+	/**
+	 * The render loop flushed the input source queue.
+	 *
+	 * @param queueDepth
+	 *            number of MT4j events waiting in the queue
+	 * @param coalescedEvents
+	 *            number of INPUT_UPDATED events superseded by a newer sample since the last flush
+	 */
+	static void queueFlushed(int queueDepth, int coalescedEvents) {
+		if (AVAILABLE)
+			MTDevJfrEvents.queueFlushed(queueDepth, coalescedEvents);
+	}
+}
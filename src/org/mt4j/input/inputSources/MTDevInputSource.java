@@ -17,11 +17,23 @@
  */
 package org.mt4j.input.inputSources;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.mt4j.AbstractMTApplication;
 import org.mt4j.input.inputData.ActiveCursorPool;
@@ -128,7 +140,7 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 	/**
 	 * Device name
 	 */
-	private String devName;
+	private volatile String devName;
 	
 	/* (non-Javadoc)
 	 * @see org.mt4j.input.inputSources.Cmtdev4j#setDevName(java.lang.String)
@@ -137,21 +149,38 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 	public void setDevName(String devName) { this.devName = devName; }
 
 	/**
-	 * Device caps
+	 * Device caps, loaded on the event loop thread before the event loop starts
 	 */
-	private Map<ABS_MT_CONSTANT, Interval<Integer>> abs_mt_caps = new HashMap<>();
+	private final Map<ABS_MT_CONSTANT, Interval<Integer>> abs_mt_caps = new EnumMap<>(ABS_MT_CONSTANT.class);
 	
 	/* (non-Javadoc)
 	 * @see org.mt4j.input.inputSources.Cmtdev4j#addCap(int, int, int)
 	 */
 	@Override
 	public void addCap(int code, int min, int max) {
-		abs_mt_caps.put(ABS_MT_CONSTANT.fromValue(code), new Interval<Integer>(min, max));
+		ABS_MT_CONSTANT capCode = ABS_MT_CONSTANT.fromValue(code);
+		if (capCode != null)
+			abs_mt_caps.put(capCode, new Interval<Integer>(min, max));
 	}
 
 	private AbstractMTApplication mtApp;
 	private static boolean loaded = false;
 
+	/**
+	 * Raw input_event stream reader, used instead of the native device when replaying a file or pipe
+	 */
+	private MTDevEventStreamReader streamReader;
+
+	/** Number of SYN_REPORT frames fired */
+	private volatile long frameCount = 0;
+
+	/** Kernel event buffer overrun (EV_SYN code): events up to the next SYN_REPORT are lost */
+	private static final int SYN_DROPPED = 0x03;
+	private boolean dropping = false;
+	private int discardedInFrame = 0;
+	/** Number of events discarded after a SYN_DROPPED, including it and the closing SYN_REPORT */
+	private volatile long droppedEventCount = 0;
+
 	/**
 	 * Build a mtdev on the supplied device.
 	 * 
@@ -169,8 +198,7 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 
 			// init/open device
 			if (this.openDevice(devFileName)) {
-				// get device capabilities
-				this.loadDeviceCaps();
+				// device capabilities are loaded by the event loop thread, see onRegistered()
 
 				// set as loaded to avoid multiple instances
 				loaded = true;
@@ -183,21 +211,79 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 
 	}
 
+	/**
+	 * Build a mtdev on a raw input_event stream (file or pipe), without the native library. Device capabilities are
+	 * not probed and must be supplied with {@link #addCap(int, int, int)} before registering.
+	 * 
+	 * @param devName
+	 *            device friendly name
+	 * @param eventStream
+	 *            stream of 64-bit little-endian struct input_event, as read from /dev/input/eventXX
+	 */
+	public MTDevInputSource(AbstractMTApplication mtApp, String devName, InputStream eventStream) {
+		super(mtApp);
+
+		this.mtApp = mtApp;
+		this.devName = devName;
+		this.streamReader = new MTDevEventStreamReader(this, eventStream);
+	}
+
+	/**
+	 * @return number of SYN_REPORT frames fired since start
+	 */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * @return number of INPUT_UPDATED events superseded by a newer sample before the render loop picked them up
+	 */
+	public long getCoalescedEventCount() {
+		return coalescedEventCount;
+	}
+
+	/**
+	 * Enable or disable frame-rate-aware dispatch (enabled by default). When enabled and the device reports frames
+	 * faster than the application renders, only the latest INPUT_UPDATED of each slot is handed to the render loop
+	 * at each draw; otherwise every event is delivered as soon as its SYN_REPORT arrives.
+	 * 
+	 * @param adaptiveDispatch
+	 *            true to coalesce updates to the render cadence
+	 */
+	public void setAdaptiveDispatch(boolean adaptiveDispatch) {
+		this.adaptiveDispatch = adaptiveDispatch;
+	}
+
+	/**
+	 * @return number of events discarded after a SYN_DROPPED
+	 */
+	public long getDroppedEventCount() {
+		return droppedEventCount;
+	}
+
 	@Override
 	public void onRegistered() {
 		// only register if correctly loaded
-		if (!loaded) return;
+		if (!loaded && streamReader == null) return;
 		
-		logger.info("Linux native mtdev device '" + devName + "'");
-		for (Entry<ABS_MT_CONSTANT, Interval<Integer>> cap : abs_mt_caps.entrySet()) {
-			logger.debug(cap.getKey().name() + " " + cap.getValue().toString());
-		}
-
 		new Thread(new Runnable() {
 			@Override
 			public void run() {
+				// get device capabilities here rather than in the constructor, so that application startup does not
+				// wait for them, and on this thread so that native calls are never concurrent
+				if (streamReader == null)
+					MTDevInputSource.this.loadDeviceCaps();
+
+				logger.info("Linux native mtdev device '" + devName + "'");
+				for (Entry<ABS_MT_CONSTANT, Interval<Integer>> cap : abs_mt_caps.entrySet()) {
+					logger.debug(cap.getKey().name() + " " + cap.getValue().toString());
+				}
+
 				// start getting touch event
-				MTDevInputSource.this.startEventLoop();
+				if (streamReader != null)
+					streamReader.run();
+				else
+					MTDevInputSource.this.startEventLoop();
 			}
 		}).start();
 
@@ -212,26 +298,113 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 		super.onUnregistered();
 	}
 
+	@Override
+	public void processAction() {
+		// called by the render loop just before each draw: measure its cadence
+		long now = System.nanoTime();
+		if (lastRenderTime != 0)
+			renderPeriod = average(renderPeriod, now - lastRenderTime);
+		lastRenderTime = now;
+
+		// release the latest sample of each slot
+		int coalesced;
+		synchronized (deferredEvts) {
+			for (MTDevInputEvt deferredEvt : deferredEvts.values())
+				this.enqueue(deferredEvt);
+			deferredEvts.clear();
+
+			coalesced = coalescedInFlush;
+			coalescedInFlush = 0;
+		}
+
+		// hand-off queue depth, as seen by the render loop
+		MTDevFlightRecorder.queueFlushed(queuedEventCount.getAndSet(0), coalesced);
+
+		super.processAction();
+	}
+
 	public void closeMTDevice() {
 		logger.info("Closing Linux native mtdev device '" + devName + "'");
 
-		this.closeDevice();
+		if (streamReader != null)
+			streamReader.close();
+		else
+			this.closeDevice();
 	}
 
 	/*
 	 * Event handling code
 	 */
 
-	private Map<Integer, Long> slotIdToCursorID = new HashMap<>();
+	/** MT4j cursors owned by this source, held per slot to avoid {@link ActiveCursorPool} lookups every frame */
+	private Map<Integer, InputCursor> slotIdToCursor = new HashMap<>();
 	private Map<Integer, MTDevInputEvt> slotIdToCurrentEvt = new HashMap<>();
 
+	/*
+	 * Slots resync after a SYN_DROPPED: last event of each ended slot, and slots whose tracking id has been seen since
+	 */
+	private Map<Integer, MTDevInputEvt> slotIdToResyncEvt = new HashMap<>();
+	private Set<Integer> resyncedSlotIds = new HashSet<>();
+	private boolean resyncing = false;
+	private long resyncStartTime = 0;
+	/** Time (ns) after which a slot still quiet since the resync is no longer restarted by its next event */
+	private static final long RESYNC_WINDOW = 1000000000L;
+
+	/** JFR frame event being timed, null if not recorded (see {@link MTDevFlightRecorder}) */
+	private Object frameEvent;
+	private boolean frameStarted = false;
+	private int frameEvdevEventCount = 0;
+	/** Number of MT4j events enqueued since the last flush */
+	private AtomicInteger queuedEventCount = new AtomicInteger();
+
+	/*
+	 * Adaptive dispatch: render and device frame periods (ns, moving averages, 0 if unknown)
+	 */
+	private volatile boolean adaptiveDispatch = true;
+	private volatile long renderPeriod = 0;
+	private long lastRenderTime = 0;
+	private long inputPeriod = 0;
+	private long lastInputTime = 0;
+
+	/** Latest INPUT_UPDATED of each slot, waiting for the next draw (guarded by itself) */
+	private Map<Integer, MTDevInputEvt> deferredEvts = new HashMap<>();
+	private int coalescedInFlush = 0;
+	private volatile long coalescedEventCount = 0;
+
 	/* (non-Javadoc)
 	 * @see org.mt4j.input.inputSources.Cmtdev4j#onMTDevTouch(int, int, int, int)
 	 */
 	@Override
 	public void onMTDevTouch(int slotId, int evtType, int evtCode, int evtValue) {
+		// SYN_DROPPED: discard events up to and including the next SYN_REPORT, as documented in the kernel evdev
+		// protocol, then resync slots (evtType is EV_SYN, whose value is the one of SYN_REPORT)
+		boolean synEvt = SYN_CONSTANT.fromValue(evtType) == SYN_CONSTANT.SYN_REPORT;
+		if (synEvt && evtCode == SYN_DROPPED) {
+			dropping = true;
+			discardedInFrame = 1;
+			droppedEventCount++;
+			return;
+		}
+		if (dropping) {
+			discardedInFrame++;
+			droppedEventCount++;
+			if (synEvt && SYN_CONSTANT.fromValue(evtCode) == SYN_CONSTANT.SYN_REPORT) {
+				dropping = false;
+				MTDevFlightRecorder.frameDropped(discardedInFrame);
+				this.resyncSlots();
+			}
+			return;
+		}
+
+		// time frame decode
+		if (!frameStarted) {
+			frameEvent = MTDevFlightRecorder.beginFrame();
+			frameStarted = true;
+		}
+		frameEvdevEventCount++;
+
 		// SYN_REPORT
-		if (SYN_CONSTANT.fromValue(evtType) == SYN_CONSTANT.SYN_REPORT) {
+		if (synEvt) {
 			logger.debug("SYN_REPORT");
 
 			// fire all built MTDevInputEvt events
@@ -253,6 +426,11 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 
 		// handle ABS_MT_TRACKING_ID
 		if (evtMTCode == ABS_MT_CONSTANT.ABS_MT_TRACKING_ID) {
+			if (resyncing) {
+				resyncedSlotIds.add(slotId);
+				slotIdToResyncEvt.remove(slotId);
+			}
+
 			// ABS_MT_TRACKING_ID:
 			// - evtValue >= 0 -> starts MTDevInputEvt event
 			if (evtValue >= 0) {
@@ -260,9 +438,9 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 
 				// build MT4j cursor
 				InputCursor inputCursor = new InputCursor();
-				long cursorId = inputCursor.getId();
-				ActiveCursorPool.getInstance().putActiveCursor(cursorId, inputCursor);
-				slotIdToCursorID.put(slotId, cursorId);
+				ActiveCursorPool.getInstance().putActiveCursor(inputCursor.getId(), inputCursor);
+				slotIdToCursor.put(slotId, inputCursor);
+				MTDevFlightRecorder.cursorStarted(slotId, inputCursor.getId());
 
 				// init an INPUT_STARTED event
 				slotIdToCurrentEvt.put(slotId, new MTDevInputEvt(this, 0, 0, MTFingerInputEvt.INPUT_STARTED, inputCursor));
@@ -278,10 +456,9 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 					return;
 
 				// get MT4j cursor associated with this slot
-				Long cursorId = slotIdToCursorID.get(slotId);
-				if (cursorId == null)
+				InputCursor inputCursor = slotIdToCursor.get(slotId);
+				if (inputCursor == null)
 					return;
-				InputCursor inputCursor = ActiveCursorPool.getInstance().getActiveCursorByID(cursorId);
 
 				// init an INPUT_ENDED event
 				slotIdToCurrentEvt.put(slotId, new MTDevInputEvt(this,
@@ -294,6 +471,10 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 		else {
 			bob.append("set " + evtMTCode.name());
 			
+			// after a SYN_DROPPED, a contact still down on a slot of unknown state is restarted
+			if (currentSlotEvt == null && resyncing && !resyncedSlotIds.contains(slotId))
+				currentSlotEvt = this.restartSlot(slotId);
+
 			// cannot update if there is no current event
 			if (currentSlotEvt == null) return;
 			
@@ -359,6 +540,41 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 	}
 
 	private void fireAllBuiltEvents() {
+		frameCount++;
+
+		// defer updates to the next draw only if the device is faster than the render loop
+		long now = System.nanoTime();
+		if (lastInputTime != 0)
+			inputPeriod = average(inputPeriod, now - lastInputTime);
+		lastInputTime = now;
+		long currentRenderPeriod = renderPeriod;
+		boolean deferUpdates = adaptiveDispatch && currentRenderPeriod != 0 && inputPeriod < currentRenderPeriod;
+
+		int contacts = fireSlotEvents(deferUpdates);
+
+		// resync ends once every ended slot has been restarted or lifted, or when the window is over for quiet slots
+		if (resyncing && (slotIdToResyncEvt.isEmpty() || now - resyncStartTime > RESYNC_WINDOW)) {
+			resyncing = false;
+			slotIdToResyncEvt.clear();
+			resyncedSlotIds.clear();
+		}
+
+		MTDevFlightRecorder.endFrame(frameEvent, contacts, frameEvdevEventCount);
+		frameEvent = null;
+		frameStarted = false;
+		frameEvdevEventCount = 0;
+
+		return;
+	}
+
+	/**
+	 * Fire the built event of each slot, and prepare the next one.
+	 * 
+	 * @param deferUpdates
+	 *            see {@link #dispatch(Integer, MTDevInputEvt, boolean)}
+	 * @return number of contacts fired
+	 */
+	private int fireSlotEvents(boolean deferUpdates) {
 		// handle all built MTDevInputEvt events
 		List<Integer> slotIdToFree = new ArrayList<>();
 		for (Entry<Integer, MTDevInputEvt> slottedEvt : slotIdToCurrentEvt.entrySet()) {
@@ -368,18 +584,17 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 			if (pendingEvent != null) {
 				// fire event
 				logger.debug("FIRING MT4j event: " + pendingEvent.toString());
-				this.enqueueInputEvent(pendingEvent);
+				this.dispatch(slotId, pendingEvent, deferUpdates);
 				
 				// either prepare next event (for update), or clean resource
 				switch (pendingEvent.getId()) {
 					case MTFingerInputEvt.INPUT_STARTED:
 					case MTFingerInputEvt.INPUT_UPDATED:
 						// get MT4j cursor associated with this slot
-						Long cursorId = slotIdToCursorID.get(slotId);
-						if (cursorId == null)
+						InputCursor inputCursor = slotIdToCursor.get(slotId);
+						if (inputCursor == null)
 							break;
-						InputCursor inputCursor = ActiveCursorPool.getInstance().getActiveCursorByID(cursorId);
-						
+
 						// init an INPUT_UPDATED event for next mtdev events
 						slotIdToCurrentEvt.put(slotId, new MTDevInputEvt(this,
 							pendingEvent.getX(), pendingEvent.getY(),
@@ -389,10 +604,11 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 						break;
 					case MTFingerInputEvt.INPUT_ENDED:
 						// clean MT4j cursor
-						cursorId = slotIdToCursorID.get(slotId);
-						if (cursorId == null)
+						inputCursor = slotIdToCursor.get(slotId);
+						if (inputCursor == null)
 							break;
-						ActiveCursorPool.getInstance().removeCursor(cursorId);
+						ActiveCursorPool.getInstance().removeCursor(inputCursor.getId());
+						MTDevFlightRecorder.cursorEnded(slotId, inputCursor.getId());
 
 						// (re)init current event
 						slotIdToFree.add(slotId);
@@ -405,11 +621,114 @@ public class MTDevInputSource extends AbstractInputSource implements Cmtdev4j {
 		// clean internal maps
 		for (Integer slotId : slotIdToFree) {
 			slotIdToCurrentEvt.remove(slotId);
-			slotIdToCursorID.remove(slotId);
+			slotIdToCursor.remove(slotId);
+		}
+
+		return slotIdToCurrentEvt.size() + slotIdToFree.size();
+	}
+
+	/**
+	 * Resync slots after events have been lost (SYN_DROPPED): contacts may have been lifted or put down unnoticed, so
+	 * all cursors are ended. Contacts still down are restarted by their next events, see {@link #restartSlot(int)}.
+	 * The dropped frame is not counted as a fired frame.
+	 */
+	private void resyncSlots() {
+		// the dropped frame is not timed: its SYN_REPORT has been discarded
+		frameEvent = null;
+		frameStarted = false;
+		frameEvdevEventCount = 0;
+
+		// forget the state of a previous resync
+		slotIdToResyncEvt.clear();
+		resyncedSlotIds.clear();
+
+		Iterator<Entry<Integer, MTDevInputEvt>> slottedEvts = slotIdToCurrentEvt.entrySet().iterator();
+		while (slottedEvts.hasNext()) {
+			Entry<Integer, MTDevInputEvt> slottedEvt = slottedEvts.next();
+			InputCursor inputCursor = slotIdToCursor.get(slottedEvt.getKey());
+			if (inputCursor == null)
+				continue;
+
+			// a cursor not started yet is dropped silently
+			MTDevInputEvt currentSlotEvt = slottedEvt.getValue();
+			if (currentSlotEvt.getId() == MTFingerInputEvt.INPUT_STARTED) {
+				ActiveCursorPool.getInstance().removeCursor(inputCursor.getId());
+				MTDevFlightRecorder.cursorEnded(slottedEvt.getKey(), inputCursor.getId());
+				slotIdToCursor.remove(slottedEvt.getKey());
+				slotIdToResyncEvt.put(slottedEvt.getKey(), currentSlotEvt);
+				slottedEvts.remove();
+				continue;
+			}
 
+			MTDevInputEvt endedEvt = new MTDevInputEvt(this,
+				currentSlotEvt.getX(), currentSlotEvt.getY(),
+				currentSlotEvt.getOrientationTouch(), currentSlotEvt.getMajorTouch(), currentSlotEvt.getMinorTouch(),
+				MTFingerInputEvt.INPUT_ENDED, inputCursor);
+			slottedEvt.setValue(endedEvt);
+			slotIdToResyncEvt.put(slottedEvt.getKey(), endedEvt);
 		}
+		fireSlotEvents(false);
 
-		return;
+		resyncing = true;
+		resyncStartTime = System.nanoTime();
+	}
+
+	/**
+	 * Start a new cursor on a slot ended by {@link #resyncSlots()}, from its last known state.
+	 * 
+	 * @return the INPUT_STARTED event of the slot
+	 */
+	private MTDevInputEvt restartSlot(int slotId) {
+		resyncedSlotIds.add(slotId);
+		MTDevInputEvt lastEvt = slotIdToResyncEvt.remove(slotId);
+
+		InputCursor inputCursor = new InputCursor();
+		ActiveCursorPool.getInstance().putActiveCursor(inputCursor.getId(), inputCursor);
+		slotIdToCursor.put(slotId, inputCursor);
+		MTDevFlightRecorder.cursorStarted(slotId, inputCursor.getId());
+
+		MTDevInputEvt startedEvt = lastEvt == null
+			? new MTDevInputEvt(this, 0, 0, MTFingerInputEvt.INPUT_STARTED, inputCursor)
+			: new MTDevInputEvt(this,
+				lastEvt.getX(), lastEvt.getY(),
+				lastEvt.getOrientationTouch(), lastEvt.getMajorTouch(), lastEvt.getMinorTouch(),
+				MTFingerInputEvt.INPUT_STARTED, inputCursor);
+		slotIdToCurrentEvt.put(slotId, startedEvt);
+		return startedEvt;
+	}
+
+	/**
+	 * Hand an event to the render loop, either now or at the next draw.
+	 * 
+	 * @param deferUpdates
+	 *            true to keep INPUT_UPDATED events until the next draw, replacing the previous one of the same slot
+	 */
+	private void dispatch(Integer slotId, MTDevInputEvt evt, boolean deferUpdates) {
+		synchronized (deferredEvts) {
+			if (deferUpdates && evt.getId() == MTFingerInputEvt.INPUT_UPDATED) {
+				if (deferredEvts.put(slotId, evt) != null) {
+					coalescedInFlush++;
+					coalescedEventCount++;
+				}
+				return;
+			}
+
+			// an older update of this slot must be delivered first
+			MTDevInputEvt deferredEvt = deferredEvts.remove(slotId);
+			if (deferredEvt != null)
+				this.enqueue(deferredEvt);
+			this.enqueue(evt);
+		}
+	}
+
+	private void enqueue(MTDevInputEvt evt) {
+		this.enqueueInputEvent(evt);
+		queuedEventCount.incrementAndGet();
+	}
+
+	/** Exponential moving average (1/8 weight) of a period, starting from the first sample. */
+	private static long average(long average, long sample) {
+		return average == 0 ? sample : average + (sample - average) / 8;
 	}
 }
 
@@ -457,35 +776,69 @@ interface Cmtdev4j {
 }
 
 /**
- * Helper class for numeric interval handling.
- * 
- * @author Frédéric Cadier
- *
- * @param <T> interval's type: T must extends Number
+ * Reads raw struct input_event records from a stream and replays them through {@link Cmtdev4j#onMTDevTouch(int, int, int, int)},
+ * tracking the current slot the way the native library does. EV_SYN events, SYN_DROPPED included, are forwarded as
+ * is: the source handles them the same way whether they come from the native library or from a stream.
  */
-class Interval<T extends Number> {
-	T min;
-	T max;
-	
-	public Interval(T min,	T max) {
-		this.min = min;
-		this.max = max;
-	}
-	
-	public T getMin() {
-		return min;
-	}
-	
-	public T getMax() {
-		return max;
-	}
-	
-	public double getLength() {
-		return (getMax().doubleValue() - getMin().doubleValue());
+class MTDevEventStreamReader implements Runnable {
+	/** The Constant logger. */
+	private static final ILogger logger = MTLoggerFactory.getLogger(MTDevEventStreamReader.class.getName());
+
+	/** sizeof(struct input_event) on 64-bit: struct timeval (16) + type (2) + code (2) + value (4) */
+	static final int INPUT_EVENT_SIZE = 24;
+	/** Event types defined in /usr/include/linux/input.h */
+	static final int EV_SYN = 0x00;
+	static final int EV_ABS = 0x03;
+
+	private final MTDevInputSource target;
+	private final DataInputStream in;
+	private volatile boolean running = true;
+
+	private int currentSlot = 0;
+
+	public MTDevEventStreamReader(MTDevInputSource target, InputStream eventStream) {
+		this.target = target;
+		this.in = new DataInputStream(new BufferedInputStream(eventStream, 64 * INPUT_EVENT_SIZE));
 	}
-	
+
 	@Override
-	public String toString() {
-		return "[" + min + ";" + max + "]";
+	public void run() {
+		byte[] record = new byte[INPUT_EVENT_SIZE];
+		ByteBuffer buffer = ByteBuffer.wrap(record).order(ByteOrder.LITTLE_ENDIAN);
+
+		try {
+			while (running) {
+				in.readFully(record);
+				int type = buffer.getShort(16) & 0xffff;
+				int code = buffer.getShort(18) & 0xffff;
+				int value = buffer.getInt(20);
+
+				if (type == EV_SYN)
+					target.onMTDevTouch(currentSlot, EV_SYN, code, value);
+				else if (type == EV_ABS) {
+					if (ABS_MT_CONSTANT.fromValue(code) == ABS_MT_CONSTANT.ABS_MT_SLOT)
+						currentSlot = value;
+					else
+						target.onMTDevTouch(currentSlot, EV_ABS, code, value);
+				}
+			}
+		}
+		catch (EOFException e) {
+			// end of replayed stream
+		}
+		catch (IOException e) {
+			if (running)
+				logger.error("Failed reading input_event stream: " + e.getMessage());
+		}
+	}
+
+	public void close() {
+		running = false;
+		try {
+			in.close();
+		}
+		catch (IOException e) {
+			// already closed
+		}
 	}
 }
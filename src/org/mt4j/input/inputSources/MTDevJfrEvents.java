@@ -0,0 +1,152 @@
+/**
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library. If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package org.mt4j.input.inputSources;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event definitions of {@link MTDevInputSource}. Only loaded through {@link MTDevFlightRecorder} when jdk.jfr is
+ * available.
+ */
+final class MTDevJfrEvents {
+	private static final EventType FRAME_TYPE = EventType.getEventType(Frame.class);
+
+	private MTDevJfrEvents() {
+	}
+
+	@Name("org.mt4j.mtdev.Frame")
+	@Label("Touch Frame")
+	@Description("Decode and dispatch of one mtdev frame, up to SYN_REPORT")
+	@Category({ "MT4j", "Input" })
+	@Threshold("1 ms")
+	@StackTrace(false)
+	static class Frame extends Event {
+		@Label("Contacts")
+		int contacts;
+
+		@Label("Evdev Events")
+		int evdevEvents;
+	}
+
+	@Name("org.mt4j.mtdev.CursorStarted")
+	@Label("Cursor Started")
+	@Category({ "MT4j", "Input" })
+	@StackTrace(false)
+	static class CursorStarted extends Event {
+		@Label("Slot")
+		int slotId;
+
+		@Label("Cursor Id")
+		long cursorId;
+	}
+
+	@Name("org.mt4j.mtdev.CursorEnded")
+	@Label("Cursor Ended")
+	@Category({ "MT4j", "Input" })
+	@StackTrace(false)
+	static class CursorEnded extends Event {
+		@Label("Slot")
+		int slotId;
+
+		@Label("Cursor Id")
+		long cursorId;
+	}
+
+	@Name("org.mt4j.mtdev.FrameDropped")
+	@Label("Frame Dropped")
+	@Description("Events discarded after a SYN_DROPPED; on the native event loop, only if the native library forwards it")
+	@Category({ "MT4j", "Input" })
+	@StackTrace(false)
+	static class FrameDropped extends Event {
+		@Label("Discarded Events")
+		int discardedEvents;
+	}
+
+	@Name("org.mt4j.mtdev.QueueFlushed")
+	@Label("Input Queue Flushed")
+	@Description("Input source queue handed off to the render loop")
+	@Category({ "MT4j", "Input" })
+	@StackTrace(false)
+	static class QueueFlushed extends Event {
+		@Label("Queue Depth")
+		int queueDepth;
+
+		@Label("Coalesced Events")
+		@Description("Updates superseded by a newer sample of the same contact since the last flush")
+		int coalescedEvents;
+	}
+
+	static Object beginFrame() {
+		if (!FRAME_TYPE.isEnabled())
+			return null;
+
+		Frame frame = new Frame();
+		frame.begin();
+		return frame;
+	}
+
+	static void endFrame(Object event, int contacts, int evdevEvents) {
+		Frame frame = (Frame) event;
+		frame.end();
+		if (frame.shouldCommit()) {
+			frame.contacts = contacts;
+			frame.evdevEvents = evdevEvents;
+			frame.commit();
+		}
+	}
+
+	static void cursorStarted(int slotId, long cursorId) {
+		CursorStarted event = new CursorStarted();
+		if (event.isEnabled()) {
+			event.slotId = slotId;
+			event.cursorId = cursorId;
+			event.commit();
+		}
+	}
+
+	static void cursorEnded(int slotId, long cursorId) {
+		CursorEnded event = new CursorEnded();
+		if (event.isEnabled()) {
+			event.slotId = slotId;
+			event.cursorId = cursorId;
+			event.commit();
+		}
+	}
+
+	static void frameDropped(int discardedEvents) {
+		FrameDropped event = new FrameDropped();
+		if (event.isEnabled()) {
+			event.discardedEvents = discardedEvents;
+			event.commit();
+		}
+	}
+
+	static void queueFlushed(int queueDepth, int coalescedEvents) {
+		QueueFlushed event = new QueueFlushed();
+		if (event.isEnabled()) {
+			event.queueDepth = queueDepth;
+			event.coalescedEvents = coalescedEvents;
+			event.commit();
+		}
+	}
+}